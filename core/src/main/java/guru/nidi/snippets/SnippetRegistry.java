@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2014 Stefan Niederhauser (nidin@gmx.ch)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.nidi.snippets;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public class SnippetRegistry {
+    private final Snippets base;
+    private final Object writeLock = new Object();
+    private volatile Snapshot current;
+
+    public SnippetRegistry(Snippets base) {
+        this.base = base;
+        this.current = new Snapshot(0, Collections.<String, Map<String, String>>emptyMap(), base);
+    }
+
+    public Snapshot putFile(String source, File file, String encoding) throws IOException {
+        return put(source, base.parseFile(file, encoding, new HashMap<>()));
+    }
+
+    public Snapshot putString(String source, String code) {
+        return put(source, base.parseString(code, new HashMap<>()));
+    }
+
+    public Snapshot remove(String source) {
+        synchronized (writeLock) {
+            if (!current.sources().containsKey(source)) {
+                return current;
+            }
+            final Map<String, Map<String, String>> bySource = new HashMap<>(current.sources());
+            bySource.remove(source);
+            return publish(bySource);
+        }
+    }
+
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    public Set<String> sources() {
+        return current.sources().keySet();
+    }
+
+    public String replaceRefs(String s) {
+        return current.snippets().replaceRefs(s);
+    }
+
+    public List<String> replaceRefs(File file, File output, String encoding) throws IOException {
+        return current.snippets().replaceRefs(file, output, encoding);
+    }
+
+    private Snapshot put(String source, Map<String, String> snippets) {
+        synchronized (writeLock) {
+            final Map<String, Map<String, String>> bySource = new HashMap<>(current.sources());
+            bySource.put(source, Collections.unmodifiableMap(snippets));
+            return publish(bySource);
+        }
+    }
+
+    private Snapshot publish(Map<String, Map<String, String>> bySource) {
+        final Map<String, String> merged = new HashMap<>(base.snippets);
+        for (final Map<String, String> source : bySource.values()) {
+            addAll(merged, source);
+        }
+        current = new Snapshot(current.version() + 1, Collections.unmodifiableMap(bySource),
+                base.withSnippets(Collections.unmodifiableMap(merged)));
+        return current;
+    }
+
+    private static void addAll(Map<String, String> target, Map<String, String> snippets) {
+        for (final Map.Entry<String, String> snippet : snippets.entrySet()) {
+            if (target.put(snippet.getKey(), snippet.getValue()) != null) {
+                throw new IllegalArgumentException("Snippet with name '" + snippet.getKey() + "' already existing.");
+            }
+        }
+    }
+
+    public static final class Snapshot {
+        final long version;
+        final Map<String, Map<String, String>> sources;
+        final Snippets snippets;
+
+        Snapshot(long version, Map<String, Map<String, String>> sources, Snippets snippets) {
+            this.version = version;
+            this.sources = sources;
+            this.snippets = snippets;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public Map<String, Map<String, String>> sources() {
+            return sources;
+        }
+
+        public Snippets snippets() {
+            return snippets;
+        }
+    }
+}
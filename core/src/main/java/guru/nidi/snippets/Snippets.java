@@ -63,14 +63,26 @@ public class Snippets {
     }
 
     public Snippets withFile(File file, String encoding) throws IOException {
+        return withSnippets(parseFile(file, encoding, new HashMap<>(snippets)));
+    }
+
+    public Snippets withString(String code) {
+        return withSnippets(parseString(code, new HashMap<>(snippets)));
+    }
+
+    Snippets withSnippets(Map<String, String> snippets) {
+        return new Snippets(snippetStart, snippetEnd, refStart, refEnd, tabSize, prefix, postfix, snippets);
+    }
+
+    Map<String, String> parseFile(File file, String encoding, Map<String, String> snippets) throws IOException {
         try (final Reader in = new InputStreamReader(new FileInputStream(file), encoding)) {
-            return new Snippets(snippetStart, snippetEnd, refStart, refEnd, tabSize, prefix, postfix, parse(in, new HashMap<>(snippets)));
+            return parse(in, snippets);
         }
     }
 
-    public Snippets withString(String code) {
+    Map<String, String> parseString(String code, Map<String, String> snippets) {
         try {
-            return new Snippets(snippetStart, snippetEnd, refStart, refEnd, tabSize, prefix, postfix, parse(new StringReader(code), new HashMap<>(snippets)));
+            return parse(new StringReader(code), snippets);
         } catch (IOException e) {
             throw new AssertionError("Cannot happen", e);
         }
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2014 Stefan Niederhauser (nidin@gmx.ch)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.nidi.snippets;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnippetRegistryTest {
+    private final SnippetRegistry r = new SnippetRegistry(new Snippets("##%name", "##end", "##%name", "##end", 0));
+
+    @Test
+    void empty() {
+        assertEquals("a\n\nb", r.replaceRefs("a\n##s1\nb"));
+    }
+
+    @Test
+    void putAndReplace() {
+        r.putString("a", "##s1\nfirst\n##end");
+        r.putString("b", "##s2\nsecond\n##end");
+        assertEquals("\nfirst\n \nsecond\n", r.replaceRefs("##s1 ##s2"));
+    }
+
+    @Test
+    void sources() {
+        r.putString("a", "##s1\nfirst\n##end");
+        r.putString("b", "##s2\nsecond\n##end");
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), r.sources());
+    }
+
+    @Test
+    void version() {
+        r.putString("a", "##s1\nfirst\n##end");
+        assertEquals(2, r.putString("b", "##s2\nsecond\n##end").version());
+    }
+
+    @Test
+    void replaceSource() {
+        r.putString("a", "##s1\nfirst\n##end");
+        r.putString("a", "##s2\nsecond\n##end");
+        assertEquals(Collections.singletonMap("s2", "\nsecond\n"), r.snapshot().snippets().snippets);
+    }
+
+    @Test
+    void remove() {
+        r.putString("a", "##s1\nfirst\n##end");
+        r.putString("b", "##s2\nsecond\n##end");
+        assertEquals(Collections.singletonMap("s2", "\nsecond\n"), r.remove("a").snippets().snippets);
+    }
+
+    @Test
+    void removeKeepsOldSnapshot() {
+        final SnippetRegistry.Snapshot old = r.putString("a", "##s1\nfirst\n##end");
+        r.remove("a");
+        assertEquals("\nfirst\n", old.snippets().replaceRefs("##s1"));
+    }
+
+    @Test
+    void removeUnknown() {
+        final SnippetRegistry.Snapshot before = r.snapshot();
+        assertSame(before, r.remove("a"));
+    }
+
+    @Test
+    void duplicateAcrossSources() {
+        r.putString("a", "##s1\nfirst\n##end");
+        assertThrows(IllegalArgumentException.class, () -> r.putString("b", "##s1\nsecond\n##end"));
+    }
+
+    @Test
+    void failedPutKeepsSnapshot() {
+        final SnippetRegistry.Snapshot before = r.putString("a", "##s1\nfirst\n##end");
+        assertThrows(IllegalArgumentException.class, () -> r.putString("b", "##s1\nsecond\n##end"));
+        assertSame(before, r.snapshot());
+    }
+
+    @Test
+    void baseSnippets() {
+        final SnippetRegistry reg = new SnippetRegistry(new Snippets("##%name", "##end", "##%name", "##end", 0)
+                .withString("##s1\nbase\n##end").prefix("<").postfix(">"));
+        reg.putString("a", "##s2\nadded\n##end");
+        assertEquals("<\nbase\n> <\nadded\n>", reg.replaceRefs("##s1 ##s2"));
+    }
+
+    @Test
+    void duplicateWithBase() {
+        final SnippetRegistry reg = new SnippetRegistry(new Snippets("##%name", "##end", "##%name", "##end", 0)
+                .withString("##s1\nbase\n##end"));
+        assertThrows(IllegalArgumentException.class, () -> reg.putString("a", "##s1\nother\n##end"));
+    }
+
+    @Test
+    void fileParseOk() throws IOException {
+        final SnippetRegistry reg = new SnippetRegistry(new Snippets("//*%name", "//*", "#%name", "#", 0));
+        reg.putFile("code", new File("src/test/java/guru/nidi/snippets/SnippetsCode.java"), "utf-8");
+        assertEquals(Collections.singletonMap("main", "\npublic static void main(String... args) {\n    System.exit(1);\n}\n"),
+                reg.snapshot().snippets().snippets);
+    }
+
+    @Test
+    void fileReplaceRefOk() throws IOException {
+        final SnippetRegistry reg = new SnippetRegistry(new Snippets("//*%name", "//*", "#%name", "#", 0));
+        reg.putFile("code", new File("src/test/java/guru/nidi/snippets/SnippetsCode.java"), "utf-8");
+        final File output = new File("target/out/registry.out");
+        reg.replaceRefs(new File("src/test/resources/guru/nidi/snippets/registry.template"), output, "utf-8");
+        assertEquals("Main method:\n\npublic static void main(String... args) {\n    System.exit(1);\n}\n\nend\n", read(output));
+    }
+
+    @Test
+    void concurrentReadersSeeConsistentSnapshots() throws Exception {
+        r.putString("a", "##a\n0\n##end ##b\n0\n##end");
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean done = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<Integer>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int errors = 0;
+                    long version = 0;
+                    while (!done.get()) {
+                        final SnippetRegistry.Snapshot snapshot = r.snapshot();
+                        if (snapshot.version() < version
+                                || !snapshot.snippets().replaceRefs("##a").equals(snapshot.snippets().replaceRefs("##b"))) {
+                            errors++;
+                        }
+                        version = snapshot.version();
+                    }
+                    return errors;
+                }));
+            }
+            start.countDown();
+            for (int i = 1; i <= 10000; i++) {
+                r.putString("a", "##a\n" + i + "\n##end ##b\n" + i + "\n##end");
+            }
+            done.set(true);
+            int errors = 0;
+            for (final Future<Integer> reader : readers) {
+                errors += reader.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(0, errors);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private String read(File f) throws IOException {
+        try (final Reader in = new InputStreamReader(new FileInputStream(f), UTF_8)) {
+            return IoUtils.read(in);
+        }
+    }
+}